@@ -0,0 +1,574 @@
+/**
+ *  A hard problem.
+ *
+ *  Convex hull of a changing set of plants, keeping the length of the wall up to date.
+ *
+ *  The hull is split in a lower and an upper chain, each stored in a TreeMap from x to y.
+ *  Inserting a point looks up its two neighbours, and if it lies below the lower chain
+ *  (or above the upper one) it is added and the neighbours that are no longer convex are
+ *  removed. Each chain operation is O(log n), and a point leaves a chain at most once per
+ *  time it entered it. The length of each chain is adjusted segment by segment.
+ *
+ *  All points are also kept sorted by x in blocks of BLOCK to 2 * BLOCK points, and each
+ *  block caches its own lower and upper hull. A segment tree over the blocks keeps the x
+ *  range and the lowest point of every run of blocks. Removing a point that is not a hull
+ *  vertex only updates its block and O(log n) tree nodes. When a vertex goes, the chain
+ *  between its two neighbours can only be made of points strictly below the segment
+ *  joining them, so any subtree whose lowest y is on or above the segment at both ends of
+ *  its x range is skipped whole. Of a block lying entirely between the neighbours, only its
+ *  hull vertices are tested; the two blocks at the ends are scanned point by point.
+ *
+ *  This is not a fully dynamic hull with a logarithmic bound. A vertex removal costs
+ *  O(BLOCK + k log n) plus O(BLOCK) for every block that reaches below the segment, where k
+ *  is the number of new vertices. Blocks are strips of x, so under a long edge of a dense
+ *  garden (or with points on a circle) that can be every block in the gap, O(n) in all.
+ *  Inserting a point costs O(BLOCK + log n), and splitting a block rebuilds the tree in
+ *  O(n / BLOCK).
+ *
+ *  Together with a WallCatalog, the minimum price after each change is a lookup.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class DynamicHull {
+
+    // Blocks are split once they hold twice this many points.
+    private static final int BLOCK = 512;
+
+    private final Chain lower = new Chain(1);
+    private final Chain upper = new Chain(-1);
+
+    //  Every point in the garden, packed as in Solver, in blocks sorted by key. A block holds
+    //  the points from its key up to the key of the next one. The first starts at Long.MIN_VALUE.
+    private final ArrayList<Block> blocks = new ArrayList<Block>();
+    private int size = 0;
+
+    //  Segment tree over the blocks, with block i at leaves + i and the children of node j at
+    //  2j and 2j + 1. For each node the smallest and largest x, and the lowest y of the lower
+    //  (lowest[0]) and of the upper chain (lowest[1], mirrored). Empty nodes have an empty x range.
+    private int leaves;
+    private long[] minX;
+    private long[] maxX;
+    private final long[][] lowest = new long[2][];
+
+    // Candidates for a chain being repaired, in mirrored coordinates, see repair.
+    private int[] candX = new int[64];
+    private long[] candY = new long[64];
+
+    // The end found by leftmost or rightmost, in mirrored coordinates.
+    private int endX;
+    private long endY;
+
+    public DynamicHull() {
+        blocks.add(new Block(Long.MIN_VALUE));
+        rebuildTree();
+    }
+
+    public void insert(Point p) {
+        long key = Solver.pack(p.getX(), p.getY());
+        int i = blockIndex(key);
+        Block block = blocks.get(i);
+        block.add(key);
+        Block right = (block.size >= 2 * BLOCK) ? block.split() : null;
+        if (right != null) {
+            blocks.add(i + 1, right);
+            rebuildTree();
+        } else {
+            updateTree(i);
+        }
+        size++;
+        lower.insert(p.getX(), p.getY());
+        upper.insert(p.getX(), -(long) p.getY());
+    }
+
+    // Returns false if the point was not in the garden.
+    public boolean remove(Point p) {
+        int x = p.getX();
+        int y = p.getY();
+        long key = Solver.pack(x, y);
+        int i = blockIndex(key);
+        Block block = blocks.get(i);
+        if (!block.remove(key)) {
+            return false;
+        }
+        size--;
+        if (block.size == 0 && i > 0) {
+            blocks.remove(i);
+            rebuildTree();
+        } else {
+            updateTree(i);
+        }
+        // Equal points are never split over two blocks, so this finds any copy left.
+        if (block.contains(key)) {
+            return true;
+        }
+        if (lower.contains(x, y)) {
+            repair(lower, 0, x);
+        }
+        if (upper.contains(x, -(long) y)) {
+            repair(upper, 1, x);
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Length of the circumference of the convex hull.
+    public double getPerimeter() {
+        if (size == 0) {
+            return 0;
+        }
+        // The chains share their leftmost and rightmost x, joined by vertical segments.
+        return lower.length + upper.length
+            + (upper.firstY() - lower.firstY())
+            + (upper.lastY() - lower.lastY());
+    }
+
+    // Smallest price of a wall around the garden.
+    public int minPrice(WallCatalog catalog) {
+        return catalog.minPrice(getPerimeter());
+    }
+
+    //  Removes the vertex at x from chain (side 0 for lower, 1 for upper) and fills the gap
+    //  between its neighbours. Coordinates are those of the chain, i.e. y mirrored for the
+    //  upper chain. A missing neighbour is replaced by the new end of the chain, which is a
+    //  vertex as well, so the gap always lies between two known vertices.
+    private void repair(Chain chain, int side, int x) {
+        Map.Entry<Integer, Long> lo = chain.points.lowerEntry(x);
+        Map.Entry<Integer, Long> hi = chain.points.higherEntry(x);
+        chain.erase(x);
+        if (size == 0) {
+            return;
+        }
+
+        long loX, loY, hiX, hiY;
+        if (lo != null) {
+            loX = lo.getKey();
+            loY = lo.getValue();
+        } else {
+            leftmost(chain.sign);
+            loX = endX;
+            loY = endY;
+            chain.insert(endX, endY);
+        }
+        if (hi != null) {
+            hiX = hi.getKey();
+            hiY = hi.getValue();
+        } else {
+            rightmost(chain.sign);
+            hiX = endX;
+            hiY = endY;
+            chain.insert(endX, endY);
+        }
+        if (hiX - loX < 2) {
+            return;
+        }
+
+        int count = search(1, side, chain.sign, loX, loY, hiX, hiY, 0);
+
+        // The candidates come in x order, so inserting them keeps each step local.
+        for (int i = 0; i < count; i++) {
+            chain.insert(candX[i], candY[i]);
+        }
+    }
+
+    //  Collects the candidates strictly between loX and hiX under the segment (loX, loY) -
+    //  (hiX, hiY) from the subtree at node, in x order. Returns the new number of candidates.
+    private int search(int node, int side, int sign, long loX, long loY, long hiX, long hiY, int count) {
+        if (maxX[node] <= loX || minX[node] >= hiX) {
+            return count;
+        }
+        // No point of the subtree is lower than its lowest y, so check that first.
+        long y = lowest[side][node];
+        if (Chain.cross(loX, loY, hiX, hiY, minX[node], y) >= 0
+                && Chain.cross(loX, loY, hiX, hiY, maxX[node], y) >= 0) {
+            return count;
+        }
+        if (node < leaves) {
+            count = search(2 * node, side, sign, loX, loY, hiX, hiY, count);
+            return search(2 * node + 1, side, sign, loX, loY, hiX, hiY, count);
+        }
+
+        Block block = blocks.get(node - leaves);
+        if (minX[node] > loX && maxX[node] < hiX) {
+            Block.Hull hull = block.hull(sign);
+            for (int i = 0; i < hull.size; i++) {
+                count = candidate(loX, loY, hiX, hiY, hull.x[i], hull.y[i], count);
+            }
+        } else {
+            for (int i = 0; i < block.size; i++) {
+                int px = Solver.unpackX(block.points[i]);
+                if (px > loX && px < hiX) {
+                    count = candidate(loX, loY, hiX, hiY, px, (long) Solver.unpackY(block.points[i]) * sign, count);
+                }
+            }
+        }
+        return count;
+    }
+
+    //  Helper function that keeps (x, y) if it lies strictly below the segment lo-hi, keeping
+    //  only the lowest point of each x. Returns the new number of candidates.
+    private int candidate(long loX, long loY, long hiX, long hiY, int x, long y, int count) {
+        if (Chain.cross(loX, loY, hiX, hiY, x, y) >= 0) {
+            return count;
+        }
+        if (count > 0 && candX[count - 1] == x) {
+            candY[count - 1] = Math.min(candY[count - 1], y);
+            return count;
+        }
+        if (count == candX.length) {
+            candX = Arrays.copyOf(candX, 2 * count);
+            candY = Arrays.copyOf(candY, 2 * count);
+        }
+        candX[count] = x;
+        candY[count] = y;
+        return count + 1;
+    }
+
+    //  Sets endX and endY to the lowest point of the smallest x, mirrored by sign. The points
+    //  of one x may run over several blocks, so all of those are looked at.
+    private void leftmost(int sign) {
+        int i = 0;
+        while (blocks.get(i).size == 0) {
+            i++;
+        }
+        endX = Solver.unpackX(blocks.get(i).points[0]);
+        endY = Long.MAX_VALUE;
+        for (; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            for (int j = 0; j < block.size; j++) {
+                if (Solver.unpackX(block.points[j]) != endX) {
+                    return;
+                }
+                endY = Math.min(endY, (long) Solver.unpackY(block.points[j]) * sign);
+            }
+        }
+    }
+
+    // Like leftmost, for the largest x. Only the first block can be empty.
+    private void rightmost(int sign) {
+        Block last = blocks.get(blocks.size() - 1);
+        endX = Solver.unpackX(last.points[last.size - 1]);
+        endY = Long.MAX_VALUE;
+        for (int i = blocks.size() - 1; i >= 0; i--) {
+            Block block = blocks.get(i);
+            for (int j = block.size - 1; j >= 0; j--) {
+                if (Solver.unpackX(block.points[j]) != endX) {
+                    return;
+                }
+                endY = Math.min(endY, (long) Solver.unpackY(block.points[j]) * sign);
+            }
+        }
+    }
+
+    // Helper function that returns the index of the block holding key.
+    private int blockIndex(long key) {
+        int lo = 0;
+        int hi = blocks.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (blocks.get(mid).key <= key) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private void rebuildTree() {
+        if (leaves < blocks.size() || leaves > 4 * blocks.size()) {
+            leaves = Integer.highestOneBit(2 * blocks.size() - 1);
+            minX = new long[2 * leaves];
+            maxX = new long[2 * leaves];
+            lowest[0] = new long[2 * leaves];
+            lowest[1] = new long[2 * leaves];
+        }
+        for (int i = 0; i < leaves; i++) {
+            setLeaf(i);
+        }
+        for (int j = leaves - 1; j >= 1; j--) {
+            merge(j);
+        }
+    }
+
+    private void updateTree(int i) {
+        setLeaf(i);
+        for (int j = (leaves + i) >> 1; j >= 1; j >>= 1) {
+            merge(j);
+        }
+    }
+
+    private void setLeaf(int i) {
+        int j = leaves + i;
+        Block block = (i < blocks.size()) ? blocks.get(i) : null;
+        if (block == null || block.size == 0) {
+            minX[j] = Long.MAX_VALUE;
+            maxX[j] = Long.MIN_VALUE;
+            lowest[0][j] = Long.MAX_VALUE;
+            lowest[1][j] = Long.MAX_VALUE;
+        } else {
+            minX[j] = Solver.unpackX(block.points[0]);
+            maxX[j] = Solver.unpackX(block.points[block.size - 1]);
+            lowest[0][j] = block.minY;
+            lowest[1][j] = -(long) block.maxY;
+        }
+    }
+
+    private void merge(int j) {
+        minX[j] = Math.min(minX[2 * j], minX[2 * j + 1]);
+        maxX[j] = Math.max(maxX[2 * j], maxX[2 * j + 1]);
+        lowest[0][j] = Math.min(lowest[0][2 * j], lowest[0][2 * j + 1]);
+        lowest[1][j] = Math.min(lowest[1][2 * j], lowest[1][2 * j + 1]);
+    }
+
+    //  Lower convex chain, from left to right. The upper chain is the lower chain of the
+    //  points mirrored in the x axis, so it is stored with sign -1.
+    private static class Chain {
+        private final int sign;
+        private final TreeMap<Integer, Long> points = new TreeMap<Integer, Long>();
+        private double length = 0;
+
+        Chain(int sign) {
+            this.sign = sign;
+        }
+
+        // Inserts (x, y), with y already mirrored.
+        void insert(int x, long y) {
+            Long cur = points.get(x);
+            if (cur != null) {
+                if (cur <= y) {
+                    return;
+                }
+                erase(x);
+            } else {
+                Map.Entry<Integer, Long> lo = points.lowerEntry(x);
+                Map.Entry<Integer, Long> hi = points.higherEntry(x);
+                if (lo != null && hi != null && cross(lo.getKey(), lo.getValue(), hi.getKey(), hi.getValue(), x, y) >= 0) {
+                    return;
+                }
+            }
+            add(x, y);
+
+            // Remove the neighbours that are no longer convex, on both sides.
+            while (true) {
+                Map.Entry<Integer, Long> lo = points.lowerEntry(x);
+                Map.Entry<Integer, Long> lo2 = (lo == null) ? null : points.lowerEntry(lo.getKey());
+                if (lo2 == null || cross(lo2.getKey(), lo2.getValue(), lo.getKey(), lo.getValue(), x, y) > 0) {
+                    break;
+                }
+                erase(lo.getKey());
+            }
+            while (true) {
+                Map.Entry<Integer, Long> hi = points.higherEntry(x);
+                Map.Entry<Integer, Long> hi2 = (hi == null) ? null : points.higherEntry(hi.getKey());
+                if (hi2 == null || cross(x, y, hi.getKey(), hi.getValue(), hi2.getKey(), hi2.getValue()) > 0) {
+                    break;
+                }
+                erase(hi.getKey());
+            }
+        }
+
+        // Whether (x, y), with y already mirrored, is a vertex.
+        boolean contains(int x, long y) {
+            Long cur = points.get(x);
+            return cur != null && cur == y;
+        }
+
+        long firstY() {
+            return points.firstEntry().getValue() * sign;
+        }
+
+        long lastY() {
+            return points.lastEntry().getValue() * sign;
+        }
+
+        private void add(int x, long y) {
+            Map.Entry<Integer, Long> lo = points.lowerEntry(x);
+            Map.Entry<Integer, Long> hi = points.higherEntry(x);
+            if (lo != null && hi != null) {
+                length -= dist(lo.getKey(), lo.getValue(), hi.getKey(), hi.getValue());
+            }
+            if (lo != null) {
+                length += dist(lo.getKey(), lo.getValue(), x, y);
+            }
+            if (hi != null) {
+                length += dist(x, y, hi.getKey(), hi.getValue());
+            }
+            points.put(x, y);
+        }
+
+        private void erase(int x) {
+            long y = points.remove(x);
+            Map.Entry<Integer, Long> lo = points.lowerEntry(x);
+            Map.Entry<Integer, Long> hi = points.higherEntry(x);
+            if (lo != null) {
+                length -= dist(lo.getKey(), lo.getValue(), x, y);
+            }
+            if (hi != null) {
+                length -= dist(x, y, hi.getKey(), hi.getValue());
+            }
+            if (lo != null && hi != null) {
+                length += dist(lo.getKey(), lo.getValue(), hi.getKey(), hi.getValue());
+            }
+        }
+
+        // Helper function that returns the orientation of three points, exactly.
+        static int cross(long x0, long y0, long x1, long y1, long x2, long y2) {
+            return Solver.crossSign(x1 - x0, y2 - y0, y1 - y0, x2 - x0);
+        }
+
+        private static double dist(double x1, double y1, double x2, double y2) {
+            return Math.sqrt((x1 - x2)*(x1 - x2) + (y1 - y2)*(y1 - y2));
+        }
+    }
+
+    //  Packed points in sorted order, with their lowest and highest y, and their lower and
+    //  upper hull computed when needed.
+    private static class Block {
+        private final long key;
+        private long[] points = new long[2 * BLOCK];
+        private int size = 0;
+        private int minY;
+        private int maxY;
+        private final Hull lowerHull = new Hull();
+        private final Hull upperHull = new Hull();
+        private boolean dirty = false;
+
+        Block(long key) {
+            this.key = key;
+        }
+
+        void add(long p) {
+            int i = insertionPoint(p);
+            if (size == points.length) {
+                points = Arrays.copyOf(points, 2 * size);
+            }
+            System.arraycopy(points, i, points, i + 1, size - i);
+            points[i] = p;
+            size++;
+            int y = Solver.unpackY(p);
+            if (size == 1 || y < minY) {
+                minY = y;
+            }
+            if (size == 1 || y > maxY) {
+                maxY = y;
+            }
+            dirty = true;
+        }
+
+        boolean remove(long p) {
+            int i = insertionPoint(p);
+            if (i == size || points[i] != p) {
+                return false;
+            }
+            System.arraycopy(points, i + 1, points, i, size - i - 1);
+            size--;
+            int y = Solver.unpackY(p);
+            if (y == minY || y == maxY) {
+                bounds();
+            }
+            dirty = true;
+            return true;
+        }
+
+        boolean contains(long p) {
+            int i = insertionPoint(p);
+            return i < size && points[i] == p;
+        }
+
+        //  Moves the upper half into a new block, or returns null if all of it is one point.
+        //  Equal points stay in the same block.
+        Block split() {
+            int mid = size / 2;
+            while (mid < size && points[mid] == points[mid - 1]) {
+                mid++;
+            }
+            if (mid == size) {
+                return null;
+            }
+            Block right = new Block(points[mid]);
+            right.size = size - mid;
+            System.arraycopy(points, mid, right.points, 0, right.size);
+            right.bounds();
+            right.dirty = true;
+            size = mid;
+            bounds();
+            dirty = true;
+            return right;
+        }
+
+        // The lower hull of the points mirrored by sign, in x order.
+        Hull hull(int sign) {
+            if (dirty) {
+                lowerHull.compute(points, size, 1);
+                upperHull.compute(points, size, -1);
+                dirty = false;
+            }
+            return (sign > 0) ? lowerHull : upperHull;
+        }
+
+        private void bounds() {
+            minY = Integer.MAX_VALUE;
+            maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                int y = Solver.unpackY(points[i]);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+            }
+        }
+
+        // Helper function that returns the first index whose point is not less than p.
+        private int insertionPoint(long p) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (points[mid] < p) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        //  Lower chain, with y mirrored by sign, computed with the monotone chain of Solver
+        //  over the lowest point of each x.
+        private static class Hull {
+            private int[] x = new int[16];
+            private long[] y = new long[16];
+            private int size = 0;
+
+            void compute(long[] points, int n, int sign) {
+                size = 0;
+                for (int i = 0; i < n; i++) {
+                    int px = Solver.unpackX(points[i]);
+                    long py = (long) Solver.unpackY(points[i]) * sign;
+                    if (size > 0 && x[size - 1] == px) {
+                        if (py >= y[size - 1]) {
+                            continue;
+                        }
+                        size--;
+                    }
+                    while (size >= 2 && Chain.cross(x[size-2], y[size-2], x[size-1], y[size-1], px, py) <= 0) {
+                        size--;
+                    }
+                    if (size == x.length) {
+                        x = Arrays.copyOf(x, 2 * size);
+                        y = Arrays.copyOf(y, 2 * size);
+                    }
+                    x[size] = px;
+                    y[size] = py;
+                    size++;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/**
+ *  A hard problem.
+ *
+ *  Reads whitespace separated integers from a channel, a block of bytes at a time.
+ *  Replaces readLine, split and parseInt for large inputs, where parsing is most of the work.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+
+public class IntReader {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    private final byte[] bytes = buffer.array();
+    private int pos = 0;
+    private int end = 0;
+
+    IntReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public static IntReader open(String path) throws IOException {
+        return new IntReader(FileChannel.open(Paths.get(path)));
+    }
+
+    // Returns false when only whitespace is left.
+    public boolean hasNext() throws IOException {
+        int c = peek();
+        while (c != -1 && c <= ' ') {
+            pos++;
+            c = peek();
+        }
+        return c != -1;
+    }
+
+    public int nextInt() throws IOException {
+        if (!hasNext()) {
+            throw new EOFException("Expected an integer");
+        }
+        boolean negative = false;
+        if (bytes[pos] == '-') {
+            negative = true;
+            pos++;
+        }
+        long ret = 0;
+        int digits = 0;
+        int c = peek();
+        while (c >= '0' && c <= '9') {
+            ret = ret * 10 + (c - '0');
+            // One past Integer.MAX_VALUE is allowed, for Integer.MIN_VALUE.
+            if (ret > (long) Integer.MAX_VALUE + 1) {
+                throw new IOException("Integer out of range");
+            }
+            digits++;
+            pos++;
+            c = peek();
+        }
+        if (digits == 0 || (c != -1 && c > ' ')) {
+            throw new IOException("Expected an integer");
+        }
+        if (negative) {
+            ret = -ret;
+        }
+        if (ret > Integer.MAX_VALUE) {
+            throw new IOException("Integer out of range");
+        }
+        return (int) ret;
+    }
+
+    // Returns the next byte, unsigned, without consuming it, or -1 at the end of the input.
+    private int peek() throws IOException {
+        if (pos == end) {
+            buffer.clear();
+            int n = channel.read(buffer);
+            while (n == 0) {
+                n = channel.read(buffer);
+            }
+            pos = 0;
+            end = Math.max(n, 0);
+            if (n < 0) {
+                return -1;
+            }
+        }
+        return bytes[pos] & 0xff;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
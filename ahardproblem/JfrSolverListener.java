@@ -0,0 +1,160 @@
+/**
+ *  A hard problem.
+ *
+ *  Records each phase of a solve as a JFR event, in the category "A hard problem".
+ *  Each event begins when its phase starts and ends when it is reported, so the usual
+ *  threshold and duration settings apply, e.g.
+ *
+ *    java -XX:StartFlightRecording=filename=solve.jfr -Dahardproblem.jfr=true Program --batch in.txt
+ *
+ *  Like Solver, a listener is meant to be used by one thread at a time.
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+public class JfrSolverListener implements SolverListener {
+
+    // The event of each kind of phase currently running, if any.
+    private InputEvent input;
+    private HullEvent hull;
+    private KnapSackEvent knapSack;
+    private InstanceEvent instance;
+
+    public JfrSolverListener() {}
+
+    public void inputStarted() {
+        input = new InputEvent();
+        input.begin();
+    }
+
+    public void inputRead(int walls, int points, long nanos) {
+        InputEvent event = (input != null) ? input : new InputEvent();
+        input = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.walls = walls;
+            event.points = points;
+            event.commit();
+        }
+    }
+
+    public void hullStarted() {
+        hull = new HullEvent();
+        hull.begin();
+    }
+
+    public void hullComputed(int points, int survivors, int vertices, double perimeter,
+                             long cullNanos, long sortNanos, long chainNanos) {
+        HullEvent event = (hull != null) ? hull : new HullEvent();
+        hull = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.points = points;
+            event.survivors = survivors;
+            event.vertices = vertices;
+            event.perimeter = perimeter;
+            event.cullNanos = cullNanos;
+            event.sortNanos = sortNanos;
+            event.chainNanos = chainNanos;
+            event.commit();
+        }
+    }
+
+    public void knapSackStarted() {
+        knapSack = new KnapSackEvent();
+        knapSack.begin();
+    }
+
+    public void knapSackSolved(String engine, int rows, int columns, long bytes, int price, long nanos) {
+        KnapSackEvent event = (knapSack != null) ? knapSack : new KnapSackEvent();
+        knapSack = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.engine = engine;
+            event.rows = rows;
+            event.columns = columns;
+            event.bytes = bytes;
+            event.price = price;
+            event.commit();
+        }
+    }
+
+    public void instanceStarted() {
+        instance = new InstanceEvent();
+        instance.begin();
+    }
+
+    public void instanceSolved(int price, long nanos) {
+        InstanceEvent event = (instance != null) ? instance : new InstanceEvent();
+        instance = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.price = price;
+            event.commit();
+        }
+    }
+
+    @Name("ahardproblem.Input")
+    @Label("Input Read")
+    @Category("A hard problem")
+    static class InputEvent extends Event {
+        @Label("Walls")
+        int walls;
+        @Label("Points")
+        int points;
+    }
+
+    @Name("ahardproblem.Hull")
+    @Label("Hull Computed")
+    @Category("A hard problem")
+    static class HullEvent extends Event {
+        @Label("Points")
+        int points;
+        @Label("Points After Culling")
+        int survivors;
+        @Label("Hull Vertices")
+        int vertices;
+        @Label("Perimeter")
+        double perimeter;
+        @Label("Cull Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long cullNanos;
+        @Label("Sort Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long sortNanos;
+        @Label("Chain Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long chainNanos;
+    }
+
+    @Name("ahardproblem.KnapSack")
+    @Label("Knapsack Solved")
+    @Category("A hard problem")
+    static class KnapSackEvent extends Event {
+        @Label("Engine")
+        String engine;
+        @Label("Rows")
+        int rows;
+        @Label("Columns")
+        int columns;
+        @Label("Table Size")
+        @DataAmount
+        long bytes;
+        @Label("Price")
+        int price;
+    }
+
+    @Name("ahardproblem.Instance")
+    @Label("Instance Solved")
+    @Category("A hard problem")
+    static class InstanceEvent extends Event {
+        @Label("Price")
+        int price;
+    }
+
+}
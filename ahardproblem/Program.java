@@ -26,33 +26,83 @@
  *  and that these are not all colinear.
  *  
  *  Extremely fast, even for large inputs.
+ *
+ *  Run with --batch [file] [--epsilon e] [--parallel [threads]] to skip the prompts and solve
+ *  many instances in one go, see the batch method for the input format.
  * 
  *  Written by Erik Bertse
  */
 
 import java.io.IOException;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.InputStreamReader;
-import java.util.List;
-import java.util.ArrayList;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.channels.Channels;
 import java.util.Comparator;
 import java.util.Collections;
 import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
 
 public class Program {
 
+    // Run with -Dahardproblem.jfr=true to record each phase as a JFR event.
+    private static final SolverListener listener =
+        Boolean.getBoolean("ahardproblem.jfr") ? new JfrSolverListener() : null;
+
     public static void main(String[] args) {
 
-    	
-        List<Point> points = new ArrayList<Point>();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            String path = null;
+            double epsilon = 0;
+            int threads = 0;
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--epsilon")) {
+                    if (i + 1 == args.length) {
+                        usage("Missing value for --epsilon");
+                    }
+                    epsilon = parseEpsilon(args[++i]);
+                } else if (args[i].equals("--parallel")) {
+                    // The number of threads is optional, and defaults to every core.
+                    threads = Runtime.getRuntime().availableProcessors();
+                    if (i + 1 < args.length && args[i + 1].matches("[0-9]+")) {
+                        threads = parseThreads(args[++i]);
+                    }
+                } else if (!args[i].startsWith("-") && path == null) {
+                    path = args[i];
+                } else {
+                    usage("Unexpected argument " + args[i]);
+                }
+            }
+            try {
+                batch(path, epsilon, threads);
+            } catch (IOException e) {
+                System.err.println("Batch stopped: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
+        int [] xs = null;
+        int [] ys = null;
         int [] meters = null; 
         int [] prices = null; 
         
         Solver solver = new Solver();
+        solver.setInteriorCulling(true);
+        solver.setListener(listener);
 
         BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
 
         try {
+            // Here reading the input includes waiting for the user to type it.
+            long start = 0;
+            if (listener != null) {
+                listener.instanceStarted();
+                listener.inputStarted();
+                start = System.nanoTime();
+            }
             System.out.println("Please provide the number of walls: ");
             int noWalls = Integer.parseInt(br.readLine());
             
@@ -62,6 +112,8 @@ public class Program {
             // intexing from 1, to conform with grahamScan
             meters = new int[noWalls+1];
             prices = new int[noWalls+1];
+            xs = new int[noPoints];
+            ys = new int[noPoints];
     
             System.out.println("Please provide " + noWalls + " pairs (m,p) of integer separated by a space "); 
             for (int i = 0; i< noWalls; i++) {
@@ -79,18 +131,147 @@ public class Program {
                 String line = br.readLine();
                 String[] pair = line.split(" ");
 
-                int x = Integer.parseInt(pair[0]);
-                int y = Integer.parseInt(pair[1]);
-                points.add(new Point(x, y));
+                xs[i] = Integer.parseInt(pair[0]);
+                ys[i] = Integer.parseInt(pair[1]);
             
             }
+            if (listener != null) {
+                listener.inputRead(noWalls, noPoints, System.nanoTime() - start);
+            }
                 
-            double wallLength = solver.grahamScan(points);
-            int minPrice = solver.minimumKnapSack(meters, prices, wallLength);
+            double wallLength = solver.monotoneChain(xs, ys);
+            int minPrice = solver.minimumPrice(meters, prices, wallLength);
+            if (listener != null) {
+                listener.instanceSolved(minPrice, System.nanoTime() - start);
+            }
             System.out.println("Smallest possible price is: " + minPrice); 
         
-        } catch (IOException e) { }
+        } catch (IOException e) {
+            System.err.println("Could not read input: " + e.getMessage());
+            System.exit(1);
+        }
+
+    }
+
+    // Returns e if it is a number of at least 0, otherwise stops with the usage message.
+    private static double parseEpsilon(String e) {
+        try {
+            double epsilon = Double.parseDouble(e);
+            if (epsilon >= 0 && !Double.isInfinite(epsilon)) {
+                return epsilon;
+            }
+        } catch (NumberFormatException ex) {
+            // Reported below.
+        }
+        usage("Bad epsilon " + e);
+        return 0;
+    }
+
+    // Returns t if it is between 1 and the largest pool size, otherwise stops with the usage message.
+    private static int parseThreads(String t) {
+        try {
+            int threads = Integer.parseInt(t);
+            if (threads >= 1 && threads <= 0x7fff) {
+                return threads;
+            }
+        } catch (NumberFormatException ex) {
+            // Reported below.
+        }
+        usage("Bad number of threads " + t);
+        return 0;
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: java Program [--batch [file] [--epsilon e] [--parallel [threads]]]");
+        System.exit(2);
+    }
+
+    //  Non-interactive mode. Reads instances back to back, from the file at path or from stdin,
+    //  and prints one minimum price per line. Each instance is given as
+    //
+    //    noWalls noPoints m1 p1 ... mn pn x1 y1 ... xk yk
+    //
+    //  where any whitespace separates the integers. With epsilon > 0 the prices are only
+    //  guaranteed to be within a factor (1 + epsilon) of the cheapest. With threads > 0 each
+    //  hull is computed by parallelMonotoneChain on a pool of that many threads.
+    private static void batch(String path, double epsilon, int threads) throws IOException {
 
+        IntReader in = (path == null) ? new IntReader(Channels.newChannel(System.in)) : IntReader.open(path);
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+
+        Solver solver = new Solver();
+        solver.setInteriorCulling(true);
+        solver.setListener(listener);
+        ForkJoinPool pool = (threads > 0) ? new ForkJoinPool(threads) : null;
+
+        // Answers already found are written out even if a later instance can not be read.
+        try {
+            while (in.hasNext()) {
+                long start = 0;
+                if (listener != null) {
+                    listener.instanceStarted();
+                    listener.inputStarted();
+                    start = System.nanoTime();
+                }
+                int noWalls = in.nextInt();
+                int noPoints = in.nextInt();
+
+                int [] meters = new int[noWalls+1];
+                int [] prices = new int[noWalls+1];
+                for (int i = 1; i <= noWalls; i++) {
+                    meters[i] = in.nextInt();
+                    prices[i] = in.nextInt();
+                }
+
+                long [] points = new long[noPoints];
+                for (int i = 0; i < noPoints; i++) {
+                    int x = in.nextInt();
+                    int y = in.nextInt();
+                    points[i] = Solver.pack(x, y);
+                }
+                if (listener != null) {
+                    listener.inputRead(noWalls, noPoints, System.nanoTime() - start);
+                }
+
+                double wallLength = (pool != null) ? solver.parallelMonotoneChain(points, pool)
+                                                   : solver.monotoneChain(points);
+                int minPrice;
+                if (epsilon > 0) {
+                    minPrice = solver.approximateKnapSack(meters, prices, wallLength, epsilon);
+                } else if (solver.prefersTable(meters, wallLength)) {
+                    long lookup = 0;
+                    if (listener != null) {
+                        listener.knapSackStarted();
+                        lookup = System.nanoTime();
+                    }
+                    WallCatalog catalog = WallCatalog.forWalls(meters, prices);
+                    int before = catalog.getMaxLimit();
+                    minPrice = catalog.minPrice(wallLength);
+                    if (listener != null) {
+                        // Only a catalog that had to grow allocated anything.
+                        int columns = catalog.getMaxLimit() + 1;
+                        long bytes = (catalog.getMaxLimit() > before) ? 4L * columns : 0;
+                        listener.knapSackSolved("catalog", 1, columns, bytes, minPrice, System.nanoTime() - lookup);
+                    }
+                } else {
+                    minPrice = solver.branchAndBoundKnapSack(meters, prices, wallLength);
+                }
+                out.println(minPrice);
+                if (listener != null) {
+                    listener.instanceSolved(minPrice, System.nanoTime() - start);
+                }
+            }
+        } finally {
+            out.flush();
+            in.close();
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        if (out.checkError()) {
+            throw new IOException("Could not write the answers");
+        }
     }
 
 }
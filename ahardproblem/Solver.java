@@ -4,6 +4,9 @@
  *  We are interested in the cheapest price possible subject to a given restriction.
  *  To find our restriction (length of the wall), we employ the GrahamScan algorithm
  *  which returns the convex hull. We calculate the length of this hull.
+ *  For large inputs, monotoneChain computes the same length from primitive arrays,
+ *  and parallelMonotoneChain spreads that work over several cores. Optionally, the points
+ *  inside the polygon of a few extreme points are discarded before sorting (Akl-Toussaint).
  *
  *  The issue of finding the cheapest possible price is an optimization problem,
  *  very similar to the classical Knapsack problem. (See Wikipedia).
@@ -11,30 +14,71 @@
  *  We use a dymanic programming technique to store, in a matrix m, the minimum prices 
  *  required for each length j <= wallLength, using i walls. 
  *  We have n walls so our required minimum price is m[n][wallLength]. 
+ *  When wallLength is large compared to the walls, the table is too big, and we search
+ *  the walls with branch and bound instead. minimumPrice chooses between the two.
+ *  If a price within a factor (1 + epsilon) of the cheapest will do, approximateKnapSack
+ *  rounds the prices instead, so that its table does not grow with wallLength.
  * 
  */
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Collections;
 import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class Solver {
 
+    //  The price of a wall that can not be built, returned by every engine.
+    //  Here the subtraction avoids overflows.
+    //  While this is risky and bad practice, it satisfied original problem constraints.
+    //  Imagine the bugs...
+    static final int INFEASIBLE = Integer.MAX_VALUE - 50000000;
+
+    // Below this many points a block is hulled sequentially.
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Beyond this many lengths a table is never considered, see prefersTable.
+    private static final long MAX_TABLE_COLUMNS = 1 << 28;
+    // Estimated branch and bound steps per pair of walls, see prefersTable.
+    private static final long BRANCH_AND_BOUND_STEPS = 64;
+    // Rough cost of a branch and bound node in table steps, to budget the search.
+    private static final long TABLE_STEPS_PER_NODE = 16;
+
+    // Whether the hull methods first discard points inside the Akl-Toussaint octagon.
+    private boolean interiorCulling = false;
+    private double lastCullRatio = 0;
+
+    // Told about each phase, if not null.
+    private SolverListener listener = null;
+
     public Solver() {}
+
+    public void setListener(SolverListener listener) {
+        this.listener = listener;
+    }
+
+    public void setInteriorCulling(boolean interiorCulling) {
+        this.interiorCulling = interiorCulling;
+    }
+
+    // Fraction of the points discarded by the last culling pass.
+    public double getLastCullRatio() {
+        return lastCullRatio;
+    }
      
     //  Returns the smallest sum(p), such that sum(m) > limit.
     public int minimumKnapSack(int[] meters, int[] prices, double limit) {
         
+        long start = knapSackStarted();
         int intlimit = (int) (Math.ceil(limit));
         int [][] m = new int[meters.length][intlimit+1];
         
         for (int j = 0; j <= intlimit; j++) {
-            // Here the subtraction avoids overflows.
-            // While this is risky and bad practice, it satisfied original problem constraints.
-            // Imagine the bugs...
-            m[0][j] = Integer.MAX_VALUE - 50000000;
+            m[0][j] = INFEASIBLE;
         }
 
         int n = meters.length - 1;
@@ -49,12 +93,375 @@ public class Solver {
             }
         }
         
+        if (listener != null) {
+            listener.knapSackSolved("table", meters.length, intlimit+1, 4L * meters.length * (intlimit+1),
+                                    m[n][intlimit], System.nanoTime() - start);
+        }
         return m[n][intlimit];
     }
 
+    //  Returns the last row of the matrix in minimumKnapSack, i.e. for every j <= maxLimit
+    //  the smallest sum(p) such that sum(m) >= j. Only one row is kept: going downwards,
+    //  m[j - meters[i]] still holds the value of row i-1.
+    public int[] priceCurve(int[] meters, int[] prices, int maxLimit) {
+
+        long start = knapSackStarted();
+        int [] m = new int[maxLimit+1];
+        for (int j = 0; j <= maxLimit; j++) {
+            m[j] = INFEASIBLE;
+        }
+
+        int n = meters.length - 1;
+
+        for (int i = 1; i <= n; i++) {
+            for (int j = maxLimit; j >= 0; j--) {
+                int take = (meters[i] >= j) ? prices[i] : m[j - meters[i]] + prices[i];
+                m[j] = Math.min(m[j], take);
+            }
+        }
+
+        if (listener != null) {
+            listener.knapSackSolved("curve", 1, maxLimit+1, 4L * (maxLimit+1), m[maxLimit], System.nanoTime() - start);
+        }
+        return m;
+    }
+
+    //  Returns the smallest sum(p), such that sum(m) > limit, together with the walls used.
+    //
+    //  Same recurrence as minimumKnapSack, but we only keep one row of prices.
+    //  To backtrack we remember, for each wall i and length j, a single bit telling whether
+    //  wall i was taken. That is n*(limit+1) bits instead of n*(limit+1) ints.
+    public WallSelection solveWithSelection(int[] meters, int[] prices, double limit) {
+
+        long start = knapSackStarted();
+        int intlimit = (int) (Math.ceil(limit));
+        int n = meters.length - 1;
+        int [] m = new int[intlimit+1];
+        long [][] taken = new long[n+1][(intlimit >> 6) + 1];
+
+        for (int j = 0; j <= intlimit; j++) {
+            m[j] = INFEASIBLE;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            // Going downwards, m[j - meters[i]] still holds the value of row i-1.
+            for (int j = intlimit; j >= 0; j--) {
+                int take = (meters[i] >= j) ? prices[i] : m[j - meters[i]] + prices[i];
+                if (take < m[j]) {
+                    m[j] = take;
+                    taken[i][j >> 6] |= 1L << j;
+                }
+            }
+        }
+
+        int[] chosen = new int[n];
+        int count = 0;
+        int j = intlimit;
+        for (int i = n; i >= 1 && j >= 0; i--) {
+            if ((taken[i][j >> 6] & (1L << j)) != 0) {
+                chosen[count++] = i;
+                // A wall at least as long as what remains finishes the wall.
+                j = (meters[i] >= j) ? -1 : j - meters[i];
+            }
+        }
+
+        int[] walls = new int[count];
+        for (int k = 0; k < count; k++) {
+            walls[k] = chosen[count - 1 - k];
+        }
+        if (listener != null) {
+            long bytes = 4L * (intlimit+1) + 8L * (n+1) * ((intlimit >> 6) + 1);
+            listener.knapSackSolved("selection", n+1, intlimit+1, bytes, m[intlimit], System.nanoTime() - start);
+        }
+        return new WallSelection(m[intlimit], walls);
+    }
+
+    //  Returns the smallest sum(p), such that sum(m) > limit, with whichever engine is cheaper.
+    public int minimumPrice(int[] meters, int[] prices, double limit) {
+        if (prefersTable(meters, limit)) {
+            int intlimit = Math.max(0, (int) (Math.ceil(limit)));
+            return priceCurve(meters, prices, intlimit)[intlimit];
+        }
+        return branchAndBoundKnapSack(meters, prices, limit);
+    }
+
+    //  Whether the table is expected to be cheaper than branch and bound for this limit.
+    //  The table costs a step per wall and length. Branch and bound is exponential in the worst
+    //  case, but with its bound it typically visits a few nodes per pair of walls. When it does
+    //  not, it gives up and falls back to the table, see branchAndBoundKnapSack.
+    public boolean prefersTable(int[] meters, double limit) {
+        long n = meters.length - 1;
+        long columns = Math.max(0, (long) Math.ceil(limit)) + 1;
+        if (columns > MAX_TABLE_COLUMNS) {
+            return false;
+        }
+        return n * columns <= n * n * BRANCH_AND_BOUND_STEPS;
+    }
+
+    //  Returns the smallest sum(p), such that sum(m) > limit, without a table.
+    //
+    //  The walls are sorted by price per meter. Searching depth first, each wall is either
+    //  taken or not, and a branch is cut when its price plus a lower bound for the rest can
+    //  not beat the best wall found so far. The bound is the LP relaxation: buy the remaining
+    //  length at the best ratios, the last wall only in part.
+    //
+    //  A wall that is at least as long and at most as expensive as another dominates it. We can
+    //  not simply drop the dominated wall, since the best wall may need both, but we only try it
+    //  once its dominator is taken: otherwise swapping the two is never worse.
+    //
+    //  Some catalogs defeat the bound, e.g. when price is proportional to length. The search is
+    //  therefore given a budget of nodes costing about as much as the table, after which the
+    //  table is used instead. Only beyond MAX_TABLE_COLUMNS does the search run to the end.
+    public int branchAndBoundKnapSack(int[] meters, int[] prices, double limit) {
+        long start = knapSackStarted();
+        int intlimit = (int) (Math.ceil(limit));
+        int n = meters.length - 1;
+
+        if (intlimit <= 0) {
+            // As in minimumKnapSack, at least one wall is bought.
+            int best = INFEASIBLE;
+            for (int i = 1; i <= n; i++) {
+                best = Math.min(best, prices[i]);
+            }
+            if (listener != null) {
+                listener.knapSackSolved("branch-and-bound", 0, 0, 0, best, System.nanoTime() - start);
+            }
+            return best;
+        }
+
+        // Walls without length never help, so they are left out.
+        List<Integer> order = new ArrayList<Integer>();
+        for (int i = 1; i <= n; i++) {
+            if (meters[i] > 0) {
+                order.add(i);
+            }
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                int c = Long.compare((long) prices[a] * meters[b], (long) prices[b] * meters[a]);
+                return (c != 0) ? c : Integer.compare(meters[b], meters[a]);
+            }
+        });
+
+        BranchAndBound bb = new BranchAndBound(order.size());
+        for (int t = 0; t < order.size(); t++) {
+            bb.m[t] = meters[order.get(t)];
+            bb.p[t] = prices[order.get(t)];
+        }
+        long columns = (long) intlimit + 1;
+        long budget = (columns <= MAX_TABLE_COLUMNS) ? Math.max(1, n * columns / TABLE_STEPS_PER_NODE) : Long.MAX_VALUE;
+        long result = bb.solve(intlimit, INFEASIBLE, budget);
+        if (result < 0) {
+            return priceCurve(meters, prices, intlimit)[intlimit];
+        }
+        int price = (int) result;
+        if (listener != null) {
+            int k = order.size();
+            listener.knapSackSolved("branch-and-bound", k, 0, 13L * k + 16L * (k+1), price, System.nanoTime() - start);
+        }
+        return price;
+    }
+
+    //  Returns sum(p) of walls such that sum(m) > limit, at most (1 + epsilon) times the smallest.
+    //
+    //  Prices are divided by K = epsilon * lb / n and rounded down, where lb <= optimum is the
+    //  LP bound of branchAndBoundKnapSack. For every rounded price q we keep the longest wall
+    //  (capped at the limit) costing at most q, and its real price. The cheapest wall covering the
+    //  limit loses less than K per wall to rounding, so at most n * K = epsilon * lb in total.
+    //  The table has one entry per rounded price up to the greedy wall, independent of the limit.
+    //  With epsilon <= 0, or when the engine minimumPrice picks is expected to take no more
+    //  steps than this table (estimated as in prefersTable), the exact engine is used.
+    public int approximateKnapSack(int[] meters, int[] prices, double limit, double epsilon) {
+        int intlimit = (int) (Math.ceil(limit));
+        if (epsilon <= 0 || intlimit <= 0) {
+            return minimumPrice(meters, prices, limit);
+        }
+        long start = knapSackStarted();
+
+        // LP bound and greedy wall, over the walls with a length, by price per meter.
+        List<Integer> order = new ArrayList<Integer>();
+        for (int i = 1; i < meters.length; i++) {
+            if (meters[i] > 0) {
+                order.add(i);
+            }
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Long.compare((long) prices[a] * meters[b], (long) prices[b] * meters[a]);
+            }
+        });
+        int k = order.size();
+        long covered = 0;
+        long greedy = 0;
+        double lb = 0;
+        for (int t = 0; t < k && covered < intlimit; t++) {
+            int i = order.get(t);
+            lb += (covered + meters[i] > intlimit) ? (double) prices[i] * (intlimit - covered) / meters[i] : prices[i];
+            covered += meters[i];
+            greedy += prices[i];
+        }
+        if (covered < intlimit) {
+            // All the walls together are too short, so no table is built.
+            if (listener != null) {
+                listener.knapSackSolved("approximate", 0, 0, 0, INFEASIBLE, System.nanoTime() - start);
+            }
+            return INFEASIBLE;
+        }
+
+        double scale = epsilon * lb / k;
+        long columns = (long) (greedy / scale) + 1;
+        long n = meters.length - 1;
+        long exact = prefersTable(meters, limit) ? n * ((long) intlimit + 1) : n * n * BRANCH_AND_BOUND_STEPS;
+        if (scale < 1 || k * columns >= exact) {
+            return minimumPrice(meters, prices, limit);
+        }
+
+        int q = (int) columns - 1;
+        int [] length = new int[q+1];
+        long [] price = new long[q+1];
+        for (int t = 0; t < k; t++) {
+            int i = order.get(t);
+            int rounded = (int) (prices[i] / scale);
+            // Going downwards, entries below j still hold the walls without wall i.
+            for (int j = q; j >= rounded; j--) {
+                int len = (int) Math.min(intlimit, (long) length[j - rounded] + meters[i]);
+                long p = price[j - rounded] + prices[i];
+                if (len > length[j] || (len == length[j] && p < price[j])) {
+                    length[j] = len;
+                    price[j] = p;
+                }
+            }
+        }
+
+        // The greedy wall costs at most q rounded, so some entry covers the limit.
+        long best = greedy;
+        for (int j = 0; j <= q; j++) {
+            if (length[j] >= intlimit) {
+                best = Math.min(best, price[j]);
+            }
+        }
+        if (listener != null) {
+            listener.knapSackSolved("approximate", 1, q+1, 12L * (q+1), (int) best, System.nanoTime() - start);
+        }
+        return (int) best;
+    }
+
+    // Depth first search over walls sorted by price per meter, see branchAndBoundKnapSack.
+    private static class BranchAndBound {
+        private final int k;
+        private final int[] m;
+        private final int[] p;
+        private final int[] dominator;
+        private final boolean[] taken;
+        private final long[] prefixM;
+        private final long[] prefixP;
+        private long best;
+
+        BranchAndBound(int k) {
+            this.k = k;
+            this.m = new int[k];
+            this.p = new int[k];
+            this.dominator = new int[k];
+            this.taken = new boolean[k];
+            this.prefixM = new long[k + 1];
+            this.prefixP = new long[k + 1];
+        }
+
+        //  Returns the smallest price, or -1 if more than budget nodes had to be visited.
+        long solve(int need, int infeasible, long budget) {
+            for (int t = 0; t < k; t++) {
+                prefixM[t+1] = prefixM[t] + m[t];
+                prefixP[t+1] = prefixP[t] + p[t];
+                // A dominator has a ratio at least as good, so it comes earlier.
+                dominator[t] = -1;
+                for (int s = 0; s < t; s++) {
+                    if (m[s] >= m[t] && p[s] <= p[t]) {
+                        dominator[t] = s;
+                        break;
+                    }
+                }
+            }
+
+            // Start from the greedy wall, taking the best ratios until the length is covered.
+            best = infeasible;
+            int u = firstCovering(0, need);
+            if (u < k) {
+                best = Math.min(best, prefixP[u+1]);
+            }
+            return search(need, budget) ? best : -1;
+        }
+
+        //  Depth first, without recursion. The path to wall t is the walls s < t, where taken[s]
+        //  tells which branch we are in: taking wall s is tried first, so a taken wall still has
+        //  its other branch to go, and the need and cost before it are kept to resume there.
+        private boolean search(long need, long budget) {
+            long[] needAt = new long[k];
+            long[] costAt = new long[k];
+            long nodes = 0;
+            int t = 0;
+            long cost = 0;
+            while (true) {
+                if (need <= 0) {
+                    best = Math.min(best, cost);
+                } else if (t < k && prefixM[k] - prefixM[t] >= need && cost + bound(t, need) < best) {
+                    if (++nodes > budget) {
+                        return false;
+                    }
+                    needAt[t] = need;
+                    costAt[t] = cost;
+                    taken[t] = dominator[t] < 0 || taken[dominator[t]];
+                    if (taken[t]) {
+                        need -= m[t];
+                        cost += p[t];
+                    }
+                    t++;
+                    continue;
+                }
+
+                // Back up to the last wall taken, and leave it out instead.
+                t--;
+                while (t >= 0 && !taken[t]) {
+                    t--;
+                }
+                if (t < 0) {
+                    return true;
+                }
+                taken[t] = false;
+                need = needAt[t];
+                cost = costAt[t];
+                t++;
+            }
+        }
+
+        // Helper function that returns the LP lower bound for covering need with walls t..k-1.
+        private long bound(int t, long need) {
+            int u = firstCovering(t, need);
+            long whole = prefixM[u] - prefixM[t];
+            double lb = (prefixP[u] - prefixP[t]) + (double) p[u] * (need - whole) / m[u];
+            // Prices are integers, so the bound can be rounded up.
+            return (long) Math.ceil(lb - 1e-9);
+        }
+
+        // Helper function that returns the first u such that walls t..u cover need, or k.
+        private int firstCovering(int t, long need) {
+            int lo = t;
+            int hi = k;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (prefixM[mid+1] - prefixM[t] >= need) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return lo;
+        }
+    }
+
     // return Length of the circumference of the convex hull
     public double grahamScan(List<Point> pointlist) {
 
+        long start = hullStarted();
         int minIdx = 0;
         for (int i= 0; i<pointlist.size(); i++) {
             Point p = pointlist.get(i);
@@ -80,6 +487,7 @@ public class Solver {
 
             }
         });
+        long sorted = (listener != null) ? System.nanoTime() : 0;
         
         Stack<Point> pointstack = new Stack<Point>();
         pointstack.push(pointlist.get(0));
@@ -92,13 +500,265 @@ public class Solver {
             pointstack.push(p);
         }
 
-        return getTotalLength(new ArrayList<Point>(pointstack));
+        double length = getTotalLength(new ArrayList<Point>(pointstack));
+        if (listener != null) {
+            listener.hullComputed(pointlist.size(), pointlist.size(), pointstack.size(), length,
+                                  0, sorted - start, System.nanoTime() - sorted);
+        }
+        return length;
     }
  
+    // return Length of the circumference of the convex hull, see monotoneChain(long[]).
+    public double monotoneChain(int[] xs, int[] ys) {
+        long[] points = new long[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            points[i] = pack(xs[i], ys[i]);
+        }
+        return monotoneChain(points);
+    }
+
+    //  return Length of the circumference of the convex hull.
+    //
+    //  Andrew's monotone chain on packed points (see pack). Since a packed long sorts
+    //  by x and then by y, a primitive sort replaces the comparator of grahamScan.
+    //  We then walk the sorted points once for the lower hull and once backwards for the
+    //  upper hull, popping with long cross products. The array is sorted in place.
+    public double monotoneChain(long[] points) {
+        long start = hullStarted();
+        int n = interiorCulling ? cullInterior(points) : points.length;
+        long culled = (listener != null) ? System.nanoTime() : 0;
+        Arrays.sort(points, 0, n);
+        long sorted = (listener != null) ? System.nanoTime() : 0;
+        long[] hull = new long[n + 1];
+        int k = chain(points, n, hull);
+        double length = getTotalLength(hull, k);
+        if (listener != null) {
+            listener.hullComputed(points.length, n, k, length,
+                                  culled - start, sorted - culled, System.nanoTime() - sorted);
+        }
+        return length;
+    }
+
+    // return Length of the circumference of the convex hull, using every core of the common pool.
+    public double parallelMonotoneChain(long[] points) {
+        return parallelMonotoneChain(points, ForkJoinPool.commonPool());
+    }
+
+    //  return Length of the circumference of the convex hull.
+    //
+    //  Hull of hulls: the points are split into blocks whose hulls are computed concurrently,
+    //  and two neighbouring hulls are merged by running the chain on their vertices only.
+    //  The final chain sees every vertex of the full hull and returns them in the same order
+    //  as monotoneChain does, so the length is exactly the same. The array is left untouched,
+    //  unless interior culling is on, which moves the surviving points to the front.
+    //  Culling runs on the calling thread before anything is forked, and on random input it
+    //  leaves only a few points, so then nearly all of the time is that one pass and more
+    //  threads gain little. The pool pays off with culling off (see SolverBenchmark).
+    public double parallelMonotoneChain(long[] points, ForkJoinPool pool) {
+        long start = hullStarted();
+        int n = interiorCulling ? cullInterior(points) : points.length;
+        long culled = (listener != null) ? System.nanoTime() : 0;
+        long[] hull = pool.invoke(new HullTask(points, 0, n));
+        double length = getTotalLength(hull, hull.length);
+        if (listener != null) {
+            listener.hullComputed(points.length, n, hull.length, length,
+                                  culled - start, 0, System.nanoTime() - culled);
+        }
+        return length;
+    }
+
+    // Computes the hull vertices of points[from, to).
+    private class HullTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] points;
+        private final int from;
+        private final int to;
+
+        HullTask(long[] points, int from, int to) {
+            this.points = points;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected long[] compute() {
+            long[] part;
+            if (to - from <= PARALLEL_THRESHOLD) {
+                part = Arrays.copyOfRange(points, from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                HullTask left = new HullTask(points, from, mid);
+                left.fork();
+                long[] right = new HullTask(points, mid, to).compute();
+                long[] leftHull = left.join();
+                part = Arrays.copyOf(leftHull, leftHull.length + right.length);
+                System.arraycopy(right, 0, part, leftHull.length, right.length);
+            }
+            Arrays.sort(part);
+            long[] hull = new long[part.length + 1];
+            int k = chain(part, part.length, hull);
+            return Arrays.copyOf(hull, k);
+        }
+    }
+
+    //  Akl-Toussaint heuristic. Returns the number of points kept, which are moved to the front.
+    //
+    //  The extreme points along 8 directions (the axes and the diagonals), taken counterclockwise,
+    //  form a convex polygon whose corners lie on the hull. A point strictly inside it can not be
+    //  a hull vertex. Each edge a->b is stored as a and b - a, and p is inside when every
+    //  ex*(py - ay) - ey*(px - ax) is positive, computed exactly and with no early exit.
+    //  Only points spread over more than 2^31 need the slower 128 bit comparison.
+    int cullInterior(long[] points) {
+        int n = points.length;
+        lastCullRatio = 0;
+        if (n < 3) {
+            return n;
+        }
+
+        // Directions, counterclockwise: -y, x-y, x, x+y, y, y-x, -x, -x-y.
+        long[] ext = new long[8];
+        Arrays.fill(ext, points[0]);
+        long minY = Long.MAX_VALUE, maxXmY = Long.MIN_VALUE, maxX = Long.MIN_VALUE, maxXpY = Long.MIN_VALUE;
+        long maxY = Long.MIN_VALUE, minXmY = Long.MAX_VALUE, minX = Long.MAX_VALUE, minXpY = Long.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            long p = points[i];
+            long x = unpackX(p);
+            long y = unpackY(p);
+            if (y < minY) { minY = y; ext[0] = p; }
+            if (x - y > maxXmY) { maxXmY = x - y; ext[1] = p; }
+            if (x > maxX) { maxX = x; ext[2] = p; }
+            if (x + y > maxXpY) { maxXpY = x + y; ext[3] = p; }
+            if (y > maxY) { maxY = y; ext[4] = p; }
+            if (x - y < minXmY) { minXmY = x - y; ext[5] = p; }
+            if (x < minX) { minX = x; ext[6] = p; }
+            if (x + y < minXpY) { minXpY = x + y; ext[7] = p; }
+        }
+
+        long[] poly = new long[8];
+        int m = 0;
+        for (int d = 0; d < 8; d++) {
+            if (m == 0 || ext[d] != poly[m-1]) {
+                poly[m++] = ext[d];
+            }
+        }
+        while (m > 1 && poly[m-1] == poly[0]) {
+            m--;
+        }
+        if (m < 3) {
+            return n;
+        }
+
+        long[] ax = new long[m];
+        long[] ay = new long[m];
+        long[] ex = new long[m];
+        long[] ey = new long[m];
+        for (int e = 0; e < m; e++) {
+            ax[e] = unpackX(poly[e]);
+            ay[e] = unpackY(poly[e]);
+            ex[e] = unpackX(poly[(e + 1) % m]) - ax[e];
+            ey[e] = unpackY(poly[(e + 1) % m]) - ay[e];
+        }
+
+        // Within a box narrower than 2^31 each product fits in 62 bits, and long arithmetic is exact.
+        boolean narrow = maxX - minX < (1L << 31) && maxY - minY < (1L << 31);
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            long p = points[i];
+            long x = unpackX(p);
+            long y = unpackY(p);
+            boolean inside = true;
+            if (narrow) {
+                for (int e = 0; e < m; e++) {
+                    inside &= ex[e]*(y - ay[e]) - ey[e]*(x - ax[e]) > 0;
+                }
+            } else {
+                for (int e = 0; e < m; e++) {
+                    inside &= crossSign(ex[e], y - ay[e], ey[e], x - ax[e]) > 0;
+                }
+            }
+            if (!inside) {
+                points[kept++] = p;
+            }
+        }
+        lastCullRatio = 1 - (double) kept / n;
+        return kept;
+    }
+
+    // Packs a point in one long, such that ordering the longs orders the points by x, then y.
+    static long pack(int x, int y) {
+        return ((long) x << 32) | ((y ^ 0x80000000) & 0xffffffffL);
+    }
+
+    static int unpackX(long p) {
+        return (int) (p >> 32);
+    }
+
+    static int unpackY(long p) {
+        return (int) p ^ 0x80000000;
+    }
+
+    //  Helper function that writes the convex hull of the n sorted points into hull,
+    //  counterclockwise from the lowest leftmost point. Returns the number of vertices.
+    private int chain(long[] sorted, int n, long[] hull) {
+        if (n < 3) {
+            System.arraycopy(sorted, 0, hull, 0, n);
+            return n;
+        }
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            while (k >= 2 && cross(hull[k-2], hull[k-1], sorted[i]) <= 0) {
+                k--;
+            }
+            hull[k++] = sorted[i];
+        }
+        int lower = k + 1;
+        for (int i = n - 2; i >= 0; i--) {
+            while (k >= lower && cross(hull[k-2], hull[k-1], sorted[i]) <= 0) {
+                k--;
+            }
+            hull[k++] = sorted[i];
+        }
+        // The first point was added again at the end.
+        return k - 1;
+    }
+
+    //Helper function that returns the orientation of three packed points, without overflow.
+    private int cross(long p0, long p1, long p2) {
+        long x0 = unpackX(p0);
+        long y0 = unpackY(p0);
+        return crossSign(unpackX(p1) - x0, unpackY(p2) - y0, unpackY(p1) - y0, unpackX(p2) - x0);
+    }
+
+    //  Helper function that returns a negative, zero or positive number as a*b - c*d is.
+    //  Differences of int coordinates take 33 bits, so the products may not fit in a long.
+    //  We compare them as 128 bit numbers instead: high words signed, then low words unsigned.
+    static int crossSign(long a, long b, long c, long d) {
+        long high1 = Math.multiplyHigh(a, b);
+        long high2 = Math.multiplyHigh(c, d);
+        if (high1 != high2) {
+            return (high1 < high2) ? -1 : 1;
+        }
+        return Long.compareUnsigned(a*b, c*d);
+    }
+
+    //Helper function that computes the length of the first k points of a packed hull.
+    private double getTotalLength(long[] hull, int k) {
+        double ret = 0;
+        for (int i = 0; i < k; i++) {
+            long p1 = hull[i];
+            long p2 = hull[(i + 1) % k];
+            double dx = (double) unpackX(p1) - unpackX(p2);
+            double dy = (double) unpackY(p1) - unpackY(p2);
+            ret += Math.sqrt(dx*dx + dy*dy);
+        }
+        return ret;
+    }
+
     //Helper function that returns the orientation of three points p0,p1,p2
     private int orient(Point p0, Point p1, Point p2) {
-        return (p1.getX() - p0.getX())*(p2.getY() - p0.getY()) - 
-               (p1.getY() - p0.getY())*(p2.getX() - p0.getX());
+        // Computed exactly, coordinates around 50000 overflow an int.
+        return crossSign((long) p1.getX() - p0.getX(), (long) p2.getY() - p0.getY(),
+                         (long) p1.getY() - p0.getY(), (long) p2.getX() - p0.getX());
     }
 
     //Helper function that computes the length of the convex hull.
@@ -113,10 +773,28 @@ public class Solver {
     }
 
 
+    // Helper function that tells the listener a knapsack engine starts, and returns the time.
+    private long knapSackStarted() {
+        if (listener == null) {
+            return 0;
+        }
+        listener.knapSackStarted();
+        return System.nanoTime();
+    }
+
+    // Helper function that tells the listener a hull computation starts, and returns the time.
+    private long hullStarted() {
+        if (listener == null) {
+            return 0;
+        }
+        listener.hullStarted();
+        return System.nanoTime();
+    }
+
     // Helper function that computes the length squared b between to nodes.
     private double lenSqr(Point p1, Point p2) {
-        int dx = (p1.getX() - p2.getX());
-        int dy = (p1.getY() - p2.getY());
+        double dx = ((double) p1.getX() - p2.getX());
+        double dy = ((double) p1.getY() - p2.getY());
         return dx*dx + dy*dy;
     }
 
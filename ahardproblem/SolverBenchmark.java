@@ -0,0 +1,133 @@
+/**
+ *  A hard problem.
+ *
+ *  Compares the table (Solver.priceCurve) with branch and bound (Solver.branchAndBoundKnapSack)
+ *  on random catalogs of several sizes and limits, and shows which one minimumPrice picks.
+ *  The approximate engine (Solver.approximateKnapSack) is timed alongside, with EPSILON.
+ *  Each case is warmed up before it is timed.
+ *
+ *  Then the hull of HULL_POINTS random points is timed with monotoneChain, and with
+ *  parallelMonotoneChain on pools of 1, 2, 4, ... up to the number of cores, with and
+ *  without interior culling.
+ *
+ *  Usage: java SolverBenchmark [seed]
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class SolverBenchmark {
+
+    private static final int[] CATALOG_SIZES = {10, 100, 1000};
+    private static final int[] LIMITS = {1000, 100000, 10000000};
+    // Cases with more table cells than this only run branch and bound.
+    private static final long MAX_CELLS = 1L << 31;
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+    private static final double EPSILON = 0.01;
+    private static final int HULL_POINTS = 1 << 22;
+
+    public static void main(String[] args) {
+
+        Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 89);
+        Solver solver = new Solver();
+
+        System.out.println("walls      limit      table ms   b&b ms     approx ms  chosen");
+        for (int n : CATALOG_SIZES) {
+            for (int limit : LIMITS) {
+
+                int [] meters = new int[n+1];
+                int [] prices = new int[n+1];
+                // Walls long enough that the limit can be covered.
+                int longest = Math.max(2, 4 * limit / n);
+                for (int i = 1; i <= n; i++) {
+                    meters[i] = 1 + random.nextInt(longest);
+                    prices[i] = 1 + random.nextInt(10000);
+                }
+
+                String table = "-";
+                int tablePrice = -1;
+                if ((long) n * (limit + 1) <= MAX_CELLS) {
+                    long start = 0;
+                    for (int r = 0; r < WARMUP + ROUNDS; r++) {
+                        if (r == WARMUP) {
+                            start = System.nanoTime();
+                        }
+                        tablePrice = solver.priceCurve(meters, prices, limit)[limit];
+                    }
+                    table = String.format("%.3f", (System.nanoTime() - start) / 1e6 / ROUNDS);
+                }
+
+                long start = 0;
+                int bbPrice = -1;
+                for (int r = 0; r < WARMUP + ROUNDS; r++) {
+                    if (r == WARMUP) {
+                        start = System.nanoTime();
+                    }
+                    bbPrice = solver.branchAndBoundKnapSack(meters, prices, limit);
+                }
+                String bb = String.format("%.3f", (System.nanoTime() - start) / 1e6 / ROUNDS);
+
+                int approxPrice = -1;
+                for (int r = 0; r < WARMUP + ROUNDS; r++) {
+                    if (r == WARMUP) {
+                        start = System.nanoTime();
+                    }
+                    approxPrice = solver.approximateKnapSack(meters, prices, limit, EPSILON);
+                }
+                String approx = String.format("%.3f", (System.nanoTime() - start) / 1e6 / ROUNDS);
+
+                if (tablePrice >= 0 && tablePrice != bbPrice) {
+                    throw new IllegalStateException("Engines disagree: " + tablePrice + " " + bbPrice);
+                }
+                if (approxPrice < bbPrice || approxPrice > (1 + EPSILON) * bbPrice) {
+                    throw new IllegalStateException("Approximation out of bounds: " + approxPrice + " " + bbPrice);
+                }
+                String chosen = solver.prefersTable(meters, limit) ? "table" : "b&b";
+                System.out.println(String.format("%-10d %-10d %-10s %-10s %-10s %s", n, limit, table, bb, approx, chosen));
+            }
+        }
+
+        long [] points = new long[HULL_POINTS];
+        for (int i = 0; i < HULL_POINTS; i++) {
+            points[i] = Solver.pack(random.nextInt(1 << 30), random.nextInt(1 << 30));
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println();
+        System.out.println("hull of " + HULL_POINTS + " points");
+        System.out.println("threads    culling    ms");
+        for (boolean culling : new boolean[] {false, true}) {
+            solver.setInteriorCulling(culling);
+            double expected = timeHull(solver, points, null, culling);
+            for (int threads = 1; threads < 2 * cores; threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(Math.min(threads, cores));
+                double length = timeHull(solver, points, pool, culling);
+                pool.shutdown();
+                if (length != expected) {
+                    throw new IllegalStateException("Hulls disagree: " + length + " " + expected);
+                }
+            }
+        }
+    }
+
+    //  Prints the time of monotoneChain, or of parallelMonotoneChain on pool, and returns the
+    //  length. Each round works on a fresh copy, since both may reorder the points.
+    private static double timeHull(Solver solver, long[] points, ForkJoinPool pool, boolean culling) {
+        double length = 0;
+        long total = 0;
+        for (int r = 0; r < WARMUP + ROUNDS; r++) {
+            long[] copy = Arrays.copyOf(points, points.length);
+            long start = System.nanoTime();
+            length = (pool == null) ? solver.monotoneChain(copy) : solver.parallelMonotoneChain(copy, pool);
+            if (r >= WARMUP) {
+                total += System.nanoTime() - start;
+            }
+        }
+        String threads = (pool == null) ? "-" : String.valueOf(pool.getParallelism());
+        System.out.println(String.format("%-10s %-10s %.3f", threads, culling, total / 1e6 / ROUNDS));
+        return length;
+    }
+
+}
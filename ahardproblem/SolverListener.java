@@ -0,0 +1,38 @@
+/**
+ *  A hard problem.
+ *
+ *  Receives the timings and sizes of each phase of a solve, see Solver.setListener.
+ *  When no listener is set, the phases are not timed at all.
+ *
+ *  Each phase is announced when it starts and reported when it ends. A phase that hands over
+ *  to another engine, e.g. branch and bound falling back to the table, is announced but only
+ *  the engine that finishes is reported. Phases of one kind do not overlap otherwise.
+ */
+
+public interface SolverListener {
+
+    default void inputStarted() {}
+
+    //  The walls and points of one instance were read. In interactive mode this includes
+    //  the time spent waiting for the user.
+    void inputRead(int walls, int points, long nanos);
+
+    default void hullStarted() {}
+
+    //  A hull was computed from points, of which survivors were left after culling.
+    //  The parallel hull sorts and chains in the same tasks, so its sortNanos is 0.
+    void hullComputed(int points, int survivors, int vertices, double perimeter,
+                      long cullNanos, long sortNanos, long chainNanos);
+
+    default void knapSackStarted() {}
+
+    //  A knapsack engine found price. rows x columns is the size of its table,
+    //  and bytes what its tables allocated.
+    void knapSackSolved(String engine, int rows, int columns, long bytes, int price, long nanos);
+
+    default void instanceStarted() {}
+
+    // One instance was solved, from reading its input to its price.
+    void instanceSolved(int price, long nanos);
+
+}
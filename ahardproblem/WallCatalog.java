@@ -0,0 +1,109 @@
+/**
+ *  A hard problem.
+ *
+ *  The walls sold by a merchant, together with the cheapest price for every wall length.
+ *
+ *  Solver.priceCurve gives, in one pass, the minimum price for every limit up to some maximum,
+ *  so gardens sharing a catalog only need a lookup each. When a longer wall is asked for the
+ *  curve is rebuilt, at least doubling its length (but not past the bound of the cache, unless
+ *  the wall needs it), so the rebuilds are amortized.
+ *
+ *  Catalogs are cached by their walls. The cache is bounded by the total length of the curves
+ *  it holds, and evicts the least recently used catalogs first. The catalog just asked for is
+ *  never evicted, even if its curve alone is over the bound.
+ */
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+public class WallCatalog {
+
+    // At most this many curve entries (4 bytes each) are kept by the cache.
+    private static final long MAX_CACHED_ENTRIES = 1 << 26;
+
+    private static final LinkedHashMap<Key, WallCatalog> cache = new LinkedHashMap<Key, WallCatalog>(16, 0.75f, true);
+    private static long cachedEntries = 0;
+
+    private final Key key;
+    private final Solver solver = new Solver();
+    private volatile int[] curve;
+    // Length of the curve as counted in cachedEntries. Guarded by the class, like the cache.
+    private int cachedLength = 0;
+
+    WallCatalog(int[] meters, int[] prices) {
+        this.key = new Key(meters.clone(), prices.clone());
+        this.curve = solver.priceCurve(key.meters, key.prices, 0);
+    }
+
+    // Returns the cached catalog for these walls, indexed from 1 as in Solver.
+    public static synchronized WallCatalog forWalls(int[] meters, int[] prices) {
+        WallCatalog catalog = cache.get(new Key(meters, prices));
+        if (catalog == null) {
+            catalog = new WallCatalog(meters, prices);
+            cache.put(catalog.key, catalog);
+            resized(catalog, catalog.curve.length);
+        }
+        return catalog;
+    }
+
+    //  Returns the smallest sum(p), such that sum(m) > limit, like Solver.minimumKnapSack.
+    public synchronized int minPrice(double limit) {
+        int intlimit = Math.max(0, (int) (Math.ceil(limit)));
+        if (intlimit >= curve.length) {
+            long doubled = Math.min(2L * (curve.length - 1), MAX_CACHED_ENTRIES - 1);
+            curve = solver.priceCurve(key.meters, key.prices, (int) Math.max(intlimit, doubled));
+            resized(this, curve.length);
+        }
+        return curve[intlimit];
+    }
+
+    // Largest limit answered without rebuilding the curve.
+    public synchronized int getMaxLimit() {
+        return curve.length - 1;
+    }
+
+    //  Helper function that accounts for the new curve length of a catalog, and evicts others
+    //  if needed. Only the lengths recorded here are read, never the curve of another catalog.
+    private static synchronized void resized(WallCatalog catalog, int length) {
+        if (cache.get(catalog.key) != catalog) {
+            return;
+        }
+        cachedEntries += length - catalog.cachedLength;
+        catalog.cachedLength = length;
+        Iterator<WallCatalog> it = cache.values().iterator();
+        while (cachedEntries > MAX_CACHED_ENTRIES && it.hasNext()) {
+            WallCatalog eldest = it.next();
+            if (eldest != catalog) {
+                cachedEntries -= eldest.cachedLength;
+                it.remove();
+            }
+        }
+    }
+
+    // The walls of a catalog, compared by content.
+    private static class Key {
+        private final int[] meters;
+        private final int[] prices;
+        private final int hash;
+
+        Key(int[] meters, int[] prices) {
+            this.meters = meters;
+            this.prices = prices;
+            this.hash = 31 * Arrays.hashCode(meters) + Arrays.hashCode(prices);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && Arrays.equals(meters, other.meters) && Arrays.equals(prices, other.prices);
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+/**
+ *  A hard problem.
+ *
+ *  Simple class to represent the cheapest choice of walls,
+ *  i.e. the minimum price together with the indices of the walls to buy.
+ */
+
+public class WallSelection {
+    private int price;
+    private int[] walls;
+
+    WallSelection(int price, int[] walls) {
+        this.price = price;
+        this.walls = walls;
+    }
+    public int getPrice() {
+        return price;
+    }
+    // Indices into the meters/prices arrays, which are indexed from 1.
+    public int[] getWalls() {
+        return walls;
+    }
+
+    public String toString() {
+        return "price: " + price + ",   walls: " + java.util.Arrays.toString(walls);
+    }
+
+}